@@ -0,0 +1,31 @@
+package com.pushnotification.pushserver.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pushnotification.CallDispatch")
+@Label("Call Dispatch")
+@Category("Push Server")
+@Description("Fan-out of one incoming call notification, from request to the last provider response")
+@StackTrace(false)
+public class CallDispatchEvent extends Event {
+
+    @Label("Room")
+    public String roomId;
+
+    @Label("Call Type")
+    public String callType;
+
+    @Label("Sender")
+    public String senderId;
+
+    @Label("Devices")
+    public int devices;
+
+    @Label("Failures")
+    public int failures;
+}
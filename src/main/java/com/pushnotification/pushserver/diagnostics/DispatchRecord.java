@@ -0,0 +1,30 @@
+package com.pushnotification.pushserver.diagnostics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable summary of one call fan-out. Stage timings are in microseconds, in the order the
+ * stages ran.
+ */
+public record DispatchRecord(
+        Instant startedAt,
+        String roomId,
+        String callType,
+        String senderId,
+        Map<String, Long> stageMicros,
+        long totalMicros,
+        List<DeviceOutcome> devices
+) {
+
+    public record DeviceOutcome(
+            String userId,
+            String provider,
+            String tokenPrefix,
+            boolean failover,
+            boolean success,
+            String error,
+            long latencyMicros
+    ) {}
+}
@@ -0,0 +1,51 @@
+package com.pushnotification.pushserver.diagnostics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free ring buffer holding the last {@code push.diagnostics.recent-dispatches} dispatch
+ * records. Writers claim a sequence number and overwrite the oldest slot; readers skip slots that
+ * are being rewritten, so a snapshot may miss a record that is concurrently replaced.
+ */
+@Component
+public class DispatchRecorder {
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public DispatchRecorder(@Value("${push.diagnostics.recent-dispatches:256}") int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("push.diagnostics.recent-dispatches must be positive");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(DispatchRecord record) {
+        long seq = sequence.getAndIncrement();
+        slots.set((int) (seq % slots.length()), new Slot(seq, record));
+    }
+
+    /**
+     * Returns up to {@code limit} records, newest first.
+     */
+    public List<DispatchRecord> recent(int limit) {
+        long end = sequence.get();
+        long start = Math.max(0, end - Math.min(limit, slots.length()));
+        List<DispatchRecord> result = new ArrayList<>((int) (end - start));
+        for (long seq = end - 1; seq >= start; seq--) {
+            Slot slot = slots.get((int) (seq % slots.length()));
+            if (slot != null && slot.seq() == seq) {
+                result.add(slot.record());
+            }
+        }
+        return result;
+    }
+
+    private record Slot(long seq, DispatchRecord record) {}
+}
@@ -0,0 +1,53 @@
+package com.pushnotification.pushserver.diagnostics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects stage timings and device outcomes while a fan-out is in progress. Stages are marked by
+ * the dispatching thread; device outcomes may arrive from provider callback threads.
+ */
+public class DispatchTrace {
+
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final String roomId;
+    private final String callType;
+    private final String senderId;
+    private final Map<String, Long> stageMicros = new LinkedHashMap<>();
+    private final Queue<DispatchRecord.DeviceOutcome> devices = new ConcurrentLinkedQueue<>();
+    private long lastMark = startNanos;
+
+    public DispatchTrace(String roomId, String callType, String senderId) {
+        this.roomId = roomId;
+        this.callType = callType;
+        this.senderId = senderId;
+    }
+
+    /**
+     * Records the time spent since the previous stage (or the start) under {@code name}.
+     */
+    public void stage(String name) {
+        long now = System.nanoTime();
+        stageMicros.put(name, (now - lastMark) / 1_000);
+        lastMark = now;
+    }
+
+    public void device(String userId, String provider, String deviceToken, boolean failover,
+                       long sendStartNanos, boolean success, String error) {
+        String tokenPrefix = deviceToken != null && deviceToken.length() > 6 ? deviceToken.substring(0, 6) : deviceToken;
+        devices.add(new DispatchRecord.DeviceOutcome(userId, provider, tokenPrefix, failover, success, error,
+                (System.nanoTime() - sendStartNanos) / 1_000));
+    }
+
+    public DispatchRecord finish() {
+        return new DispatchRecord(startedAt, roomId, callType, senderId, Collections.unmodifiableMap(new LinkedHashMap<>(stageMicros)),
+                (System.nanoTime() - startNanos) / 1_000, List.copyOf(new ArrayList<>(devices)));
+    }
+}
@@ -0,0 +1,28 @@
+package com.pushnotification.pushserver.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/dispatches?limit=N} – most recent call fan-outs with per-stage timings and
+ * per-device outcomes, newest first.
+ */
+@Component
+@Endpoint(id = "dispatches")
+@RequiredArgsConstructor
+public class DispatchesEndpoint {
+
+    private static final int DEFAULT_LIMIT = 50;
+
+    private final DispatchRecorder dispatchRecorder;
+
+    @ReadOperation
+    public List<DispatchRecord> recent(@Nullable Integer limit) {
+        return dispatchRecorder.recent(limit != null && limit > 0 ? limit : DEFAULT_LIMIT);
+    }
+}
@@ -0,0 +1,28 @@
+package com.pushnotification.pushserver.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pushnotification.MemberResolution")
+@Label("Member Resolution")
+@Category("Push Server")
+@Description("DB lookup of joined room members and their pushers")
+@StackTrace(false)
+public class MemberResolutionEvent extends Event {
+
+    @Label("Room")
+    public String roomId;
+
+    @Label("Members")
+    public int members;
+
+    @Label("Pushers")
+    public int pushers;
+
+    @Label("Localpart Fallback")
+    public boolean localpartFallback;
+}
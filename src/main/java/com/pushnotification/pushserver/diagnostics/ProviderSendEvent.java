@@ -0,0 +1,50 @@
+package com.pushnotification.pushserver.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One provider send. Begun on the calling thread and committed from the provider's completion
+ * callback, so the duration covers the full round trip.
+ */
+@Name("com.pushnotification.ProviderSend")
+@Label("Provider Send")
+@Category("Push Server")
+@Description("Single APNs or FCM send, including fail-fast rejections by the circuit breaker")
+@StackTrace(false)
+public class ProviderSendEvent extends Event {
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Token Prefix")
+    public String tokenPrefix;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Circuit Open")
+    public boolean circuitOpen;
+
+    @Label("Error")
+    public String error;
+
+    public ProviderSendEvent(String provider, String deviceToken) {
+        if (isEnabled()) {
+            this.provider = provider;
+            this.tokenPrefix = deviceToken != null && deviceToken.length() > 6 ? deviceToken.substring(0, 6) : deviceToken;
+        }
+    }
+
+    public void complete(boolean success, String error) {
+        if (shouldCommit()) {
+            this.success = success;
+            this.error = error;
+            commit();
+        }
+    }
+}
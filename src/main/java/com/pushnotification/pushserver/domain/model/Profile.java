@@ -0,0 +1,26 @@
+package com.pushnotification.pushserver.domain.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "profiles")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Profile {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private String userId; // localpart, not the full MXID
+
+    @Column(name = "displayname")
+    private String displayName;
+}
@@ -0,0 +1,7 @@
+package com.pushnotification.pushserver.domain.repository;
+
+import com.pushnotification.pushserver.domain.model.Profile;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProfileRepository extends JpaRepository<Profile, String> {
+}
@@ -1,9 +0,0 @@
-package com.pushnotification.pushserver.domain.repository;
-
-import com.pushnotification.pushserver.domain.model.User;
-import org.springframework.data.jpa.repository.JpaRepository;
-
-public interface UserRepository extends JpaRepository<User, String> {
-}
-
-
@@ -1,18 +1,29 @@
 package com.pushnotification.pushserver.domain.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.pushnotification.pushserver.application.dto.CallNotificationRequest;
+import com.pushnotification.pushserver.diagnostics.CallDispatchEvent;
+import com.pushnotification.pushserver.diagnostics.DispatchRecord;
+import com.pushnotification.pushserver.diagnostics.DispatchRecorder;
+import com.pushnotification.pushserver.diagnostics.DispatchTrace;
+import com.pushnotification.pushserver.diagnostics.MemberResolutionEvent;
 import com.pushnotification.pushserver.domain.model.Pusher;
 import com.pushnotification.pushserver.domain.repository.PusherRepository;
 import com.pushnotification.pushserver.domain.repository.LocalCurrentMembershipRepository;
+import com.pushnotification.pushserver.domain.util.MatrixIds;
 import com.pushnotification.pushserver.push.ApnsPushService;
 import com.pushnotification.pushserver.push.FcmPushService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
@@ -24,11 +35,37 @@ public class CallNotificationService {
     private final LocalCurrentMembershipRepository membershipRepository;
     private final ApnsPushService apnsPushService;
     private final FcmPushService fcmPushService;
+    private final CallTemplateService callTemplateService;
+    private final DisplayNameCache displayNameCache;
+    private final DispatchRecorder dispatchRecorder;
     private static final Logger log = LoggerFactory.getLogger(CallNotificationService.class);
 
+    @Value("${push.test-mode.fcm-token:}")
+    private String testFcmToken;
+
     public void sendIncomingCallNotification(CallNotificationRequest request) {
-        String title = "Incoming " + request.getCallType() + " call";
-        String body = request.getSenderId() + " is calling";
+        CallDispatchEvent event = new CallDispatchEvent();
+        event.begin();
+        DispatchTrace trace = new DispatchTrace(request.getRoomId(), request.getCallType(), request.getSenderId());
+        try {
+            dispatch(request, trace);
+        } finally {
+            DispatchRecord record = trace.finish();
+            dispatchRecorder.add(record);
+            if (event.shouldCommit()) {
+                event.roomId = request.getRoomId();
+                event.callType = request.getCallType();
+                event.senderId = request.getSenderId();
+                event.devices = record.devices().size();
+                event.failures = (int) record.devices().stream().filter(d -> !d.success()).count();
+                event.commit();
+            }
+        }
+    }
+
+    private void dispatch(CallNotificationRequest request, DispatchTrace trace) {
+        String senderName = displayNameCache.resolve(request.getSenderId());
+        trace.stage("sender-name");
         Map<String, String> data = Map.of(
                 "type", "call",
                 "callType", request.getCallType(),
@@ -36,21 +73,36 @@ public class CallNotificationService {
                 "senderId", request.getSenderId()
         );
 
-        // HARDCODED FCM TOKEN FOR TESTING - Replace with your actual FCM token
-        String testFcmToken = "cE6l4E_HShqqaRpo8Xo8ze:APA91bFgh6YHEsvlkrKg4-EXeMI8BvQ0VvGOA5ATzt_q65wENhIZ76LDGPbksBUu2cVbCh1pce7Aage0MiyqtQ8moBRvbTaK4rJwO34LMyPsLFsY4IrRTSs"; // Replace with your Android FCM token
-        
-        log.info("TEST MODE: Using hardcoded FCM token for testing");
-        log.info("FCM Token: {}", testFcmToken.length() > 10 ? testFcmToken.substring(0, 10) + "..." : testFcmToken);
-
-        // Send to hardcoded FCM token for testing
-        if (testFcmToken != null && !testFcmToken.equals("cE6l4E_HShqqaRpo8Xo8ze:APA91bFgh6YHEsvlkrKg4-EXeMI8BvQ0VvGOA5ATzt_q65wENhIZ76LDGPbksBUu2cVbCh1pce7Aage0MiyqtQ8moBRvbTaK4rJwO34LMyPsLFsY4IrRTSs") && !testFcmToken.trim().isEmpty()) {
-            log.info("Sending FCM notification to hardcoded Android device");
-            fcmPushService.send(testFcmToken, title, body, data).join();
-        } else {
-            log.warn("No FCM test token configured! Please replace YOUR_FCM_TOKEN_HERE with actual FCM token");
+        if (testFcmToken != null && !testFcmToken.isBlank()) {
+            // Test mode: ring only the configured device, skip the DB fan-out
+            CallTemplateService.CallText text = callTemplateService.render("", request.getCallType(), senderName);
+            String title = text.title();
+            String body = text.body();
+            trace.stage("render");
+            log.info("TEST MODE: sending only to push.test-mode.fcm-token={}", testFcmToken.length() > 10 ? testFcmToken.substring(0, 10) + "..." : testFcmToken);
+            long start = System.nanoTime();
+            fcmPushService.send(testFcmToken, title, body, data)
+                    .whenComplete((r, t) -> trace.device(null, "FCM", testFcmToken, false, start,
+                            r != null && r.success(), r != null ? r.error() : t.getMessage()))
+                    .join();
+            trace.stage("send");
+            return;
         }
 
-        /* ORIGINAL DATABASE LOGIC - COMMENTED OUT FOR TESTING
+        List<Pusher> pushers = resolvePushers(request);
+        trace.stage("resolve");
+        List<CompletableFuture<?>> futures = sendToPushers(pushers.stream()
+                .filter(p -> !request.getSenderId().equals(p.getUserName()))
+                .collect(Collectors.toList()), new FanOutPayloads(request.getCallType(), senderName, data), trace);
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        trace.stage("send");
+        log.info("Completed sends for roomId={} pushers={} futures={} ", request.getRoomId(), pushers.size(), futures.size());
+    }
+
+    private List<Pusher> resolvePushers(CallNotificationRequest request) {
+        MemberResolutionEvent event = new MemberResolutionEvent();
+        event.begin();
         log.info("Resolving members for roomId={}", request.getRoomId());
         String senderMxid = request.getSenderId();
         List<String> roomMembers = membershipRepository.findByRoomIdAndMembership(request.getRoomId(), "join")
@@ -62,13 +114,15 @@ public class CallNotificationService {
         log.info("Room members to notify (excluding sender): {}", roomMembers);
 
         List<Pusher> pushers = List.of();
+        boolean triedLocals = false;
         if (!roomMembers.isEmpty()) {
             // Try exact MXIDs first
             pushers = pusherRepository.findByUserNameIn(roomMembers);
             if (pushers.isEmpty()) {
                 // Fallback: try matching on localparts if pushers store localpart only
+                triedLocals = true;
                 List<String> memberLocals = roomMembers.stream()
-                        .map(this::extractLocalpart)
+                        .map(MatrixIds::localpart)
                         .filter(s -> s != null && !s.isBlank())
                         .distinct()
                         .collect(Collectors.toList());
@@ -77,36 +131,124 @@ public class CallNotificationService {
                 }
             }
         }
-        log.info("Loaded pushers: count={} (members={}, triedLocalsFallback={})", pushers.size(), roomMembers.size(), pushers.isEmpty() ? "yes" : "no");
-        List<CompletableFuture<?>> futures = pushers.stream()
-                .filter(p -> !request.getSenderId().equals(p.getUserName()))
-                .map(p -> {
-                    String token = p.getPushkey();
-                    boolean ios = isIosPusher(p);
-                    log.info("Sending to user={}, appId={}, platform={}, tokenPrefix={}", p.getUserName(), p.getAppId(), ios ? "iOS" : "Android", token != null && token.length() > 6 ? token.substring(0,6) : token);
-                    if (ios) {
-                        return apnsPushService.send(token, title, body, data);
-                    } else {
-                        return fcmPushService.send(token, title, body, data);
-                    }
-                })
-                .collect(Collectors.toList());
+        log.info("Loaded pushers: count={} (members={}, triedLocalsFallback={})", pushers.size(), roomMembers.size(), triedLocals ? "yes" : "no");
+        if (event.shouldCommit()) {
+            event.roomId = request.getRoomId();
+            event.members = roomMembers.size();
+            event.pushers = pushers.size();
+            event.localpartFallback = triedLocals;
+            event.commit();
+        }
+        return pushers;
+    }
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        log.info("Completed sends for roomId={} recipients={} futures={} ", request.getRoomId(), roomMembers.size(), futures.size());
-        */
+    /**
+     * Sends to the given pushers. An iOS device that also has an FCM pusher (same user and
+     * device id) is reached over APNs only; when the APNs circuit breaker refuses that send it is
+     * reached through its FCM registration instead, which carries the same alert in its APNs block.
+     * Devices without such a fallback fail fast inside the provider service.
+     */
+    private List<CompletableFuture<?>> sendToPushers(List<Pusher> pushers, FanOutPayloads payloads, DispatchTrace trace) {
+        Map<String, Pusher> fcmFallbacks = new HashMap<>();
+        for (Pusher p : pushers) {
+            String key = deviceKey(p);
+            if (key != null && !isIosPusher(p)) {
+                fcmFallbacks.putIfAbsent(key, p);
+            }
+        }
+        Set<String> iosDevices = pushers.stream()
+                .filter(this::isIosPusher)
+                .map(this::deviceKey)
+                .filter(k -> k != null && fcmFallbacks.containsKey(k))
+                .collect(Collectors.toSet());
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (Pusher p : pushers) {
+            String token = p.getPushkey();
+            boolean ios = isIosPusher(p);
+            if (!ios && iosDevices.contains(deviceKey(p))) {
+                continue; // reserved as fallback for the device's APNs pusher
+            }
+            String lang = CallTemplateService.languageOf(p.getLang());
+            log.info("Sending to user={}, appId={}, platform={}, lang={}, tokenPrefix={}", p.getUserName(), p.getAppId(), ios ? "iOS" : "Android", lang, token != null && token.length() > 6 ? token.substring(0,6) : token);
+            long start = System.nanoTime();
+            String user = p.getUserName();
+            if (ios) {
+                Pusher fallback = fcmFallbacks.get(deviceKey(p));
+                CompletableFuture<ApnsPushService.ProviderResult> apnsSend;
+                try {
+                    ApnsPushService.PreparedNotification prepared = payloads.apns(lang);
+                    // With a fallback, let the breaker decide once: a refused send goes to FCM instead
+                    apnsSend = fallback != null
+                            ? apnsPushService.trySend(token, prepared).orElse(null)
+                            : apnsPushService.send(token, prepared);
+                } catch (JsonProcessingException e) {
+                    log.error("Failed to build APNs payload for lang={}: {}", lang, e.getMessage());
+                    trace.device(user, "APNs", token, false, start, false, e.getMessage());
+                    continue;
+                }
+                if (apnsSend != null) {
+                    futures.add(apnsSend.whenComplete((r, t) -> trace.device(user, "APNs", token, false, start,
+                            r != null && r.success(), r != null ? r.error() : t.getMessage())));
+                } else {
+                    log.warn("APNs circuit open, failing over to FCM for user={}, deviceId={}", p.getUserName(), p.getDeviceId());
+                    futures.add(fcmPushService.send(fallback.getPushkey(), payloads.fcm(lang))
+                            .whenComplete((r, t) -> trace.device(user, "FCM", fallback.getPushkey(), true, start,
+                                    r != null && r.success(), r != null ? r.error() : t.getMessage())));
+                }
+            } else {
+                futures.add(fcmPushService.send(token, payloads.fcm(lang))
+                        .whenComplete((r, t) -> trace.device(user, "FCM", token, false, start,
+                                r != null && r.success(), r != null ? r.error() : t.getMessage())));
+            }
+        }
+        return futures;
+    }
+
+    private String deviceKey(Pusher pusher) {
+        if (pusher.getDeviceId() == null || pusher.getDeviceId().isBlank()) return null;
+        return pusher.getUserName() + "|" + pusher.getDeviceId();
     }
 
-    private String extractLocalpart(String mxid) {
-        if (mxid == null) return null;
-        // Expect format @local:domain
-        int at = mxid.indexOf('@');
-        int colon = mxid.indexOf(':');
-        if (colon > -1) {
-            return mxid.substring(at == -1 ? 0 : at + 1, colon);
+    /**
+     * Encoded payloads for one fan-out, built once per language. Call type and sender are fixed
+     * for a fan-out, so the language is the only varying part of the (language, callType, sender)
+     * key; a room with mixed languages encodes each variant once instead of once per device.
+     */
+    private final class FanOutPayloads {
+        private final String callType;
+        private final String senderName;
+        private final Map<String, String> data;
+        private final Map<String, CallTemplateService.CallText> texts = new HashMap<>();
+        private final Map<String, ApnsPushService.PreparedNotification> apns = new HashMap<>();
+        private final Map<String, FcmPushService.PreparedNotification> fcm = new HashMap<>();
+
+        private FanOutPayloads(String callType, String senderName, Map<String, String> data) {
+            this.callType = callType;
+            this.senderName = senderName;
+            this.data = data;
+        }
+
+        private CallTemplateService.CallText text(String lang) {
+            return texts.computeIfAbsent(lang, l -> callTemplateService.render(l, callType, senderName));
+        }
+
+        private ApnsPushService.PreparedNotification apns(String lang) throws JsonProcessingException {
+            ApnsPushService.PreparedNotification prepared = apns.get(lang);
+            if (prepared == null) {
+                CallTemplateService.CallText text = text(lang);
+                prepared = apnsPushService.prepare(text.title(), text.body(), data);
+                apns.put(lang, prepared);
+            }
+            return prepared;
+        }
+
+        private FcmPushService.PreparedNotification fcm(String lang) {
+            return fcm.computeIfAbsent(lang, l -> {
+                CallTemplateService.CallText text = text(l);
+                return fcmPushService.prepare(text.title(), text.body(), data);
+            });
         }
-        // If no domain part, return as-is (assume already localpart)
-        return mxid.startsWith("@") ? mxid.substring(1) : mxid;
     }
 
     private boolean isIosPusher(Pusher pusher) {
@@ -0,0 +1,41 @@
+package com.pushnotification.pushserver.domain.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+
+/**
+ * Renders the localized title and body of a call notification from the {@code i18n/call}
+ * bundles. The language comes from {@code Pusher.lang} (e.g. "en", "de-DE", "pt_BR"); only the
+ * primary language subtag is used, and unknown languages fall back to the default bundle.
+ */
+@Service
+@RequiredArgsConstructor
+public class CallTemplateService {
+
+    private final MessageSource messageSource;
+
+    public CallText render(String language, String callType, String senderName) {
+        Locale locale = language.isEmpty() ? Locale.ROOT : Locale.forLanguageTag(language);
+        String type = callType != null ? callType.toLowerCase(Locale.ROOT) : "";
+        String title = messageSource.getMessage("call.title." + type, null, null, locale);
+        if (title == null) {
+            title = messageSource.getMessage("call.title.other", new Object[]{callType}, locale);
+        }
+        String body = messageSource.getMessage("call.body", new Object[]{senderName}, locale);
+        return new CallText(title, body);
+    }
+
+    /**
+     * Normalizes a pusher language to the key templates are selected by: the lower-case primary
+     * language subtag, or "" when unset.
+     */
+    public static String languageOf(String lang) {
+        if (lang == null || lang.isBlank()) return "";
+        return Locale.forLanguageTag(lang.trim().replace('_', '-')).getLanguage();
+    }
+
+    public record CallText(String title, String body) {}
+}
@@ -0,0 +1,72 @@
+package com.pushnotification.pushserver.domain.service;
+
+import com.pushnotification.pushserver.domain.model.Profile;
+import com.pushnotification.pushserver.domain.repository.ProfileRepository;
+import com.pushnotification.pushserver.domain.util.MatrixIds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ConcurrentLruCache;
+
+/**
+ * Bounded LRU cache of Synapse display names keyed by MXID. Entries expire after
+ * {@code push.display-name.ttl-ms} so renames show up eventually. A failed lookup is cached as the
+ * MXID for {@code push.display-name.negative-ttl-ms}, so a DB outage costs at most one blocking
+ * query per sender per negative TTL instead of one per call.
+ * <p>
+ * Synapse's {@code profiles} table is keyed by localpart and only holds local users, so only MXIDs
+ * on {@code matrix.server-name} are looked up; remote senders, and every sender while the server
+ * name is unset, are shown by MXID. Also falls back to the MXID when a user has no display name.
+ */
+@Component
+public class DisplayNameCache {
+
+    private final ProfileRepository profileRepository;
+    private final ConcurrentLruCache<String, Entry> cache;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final String serverName;
+    private static final Logger log = LoggerFactory.getLogger(DisplayNameCache.class);
+
+    public DisplayNameCache(ProfileRepository profileRepository,
+                            @Value("${push.display-name.cache-size:10000}") int cacheSize,
+                            @Value("${push.display-name.ttl-ms:600000}") long ttlMs,
+                            @Value("${push.display-name.negative-ttl-ms:30000}") long negativeTtlMs,
+                            @Value("${matrix.server-name:}") String serverName) {
+        this.profileRepository = profileRepository;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.negativeTtlNanos = negativeTtlMs * 1_000_000L;
+        this.serverName = serverName;
+        this.cache = new ConcurrentLruCache<>(cacheSize, this::load);
+    }
+
+    public String resolve(String mxid) {
+        if (mxid == null) return null;
+        Entry entry = cache.get(mxid);
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            // Serve the stale name this time; the next call loads a fresh entry
+            cache.remove(mxid);
+        }
+        return entry.displayName();
+    }
+
+    private Entry load(String mxid) {
+        long now = System.nanoTime();
+        if (serverName == null || serverName.isBlank() || !serverName.equals(MatrixIds.serverName(mxid))) {
+            return new Entry(mxid, now + ttlNanos); // remote user: not in our profiles table
+        }
+        try {
+            String name = profileRepository.findById(MatrixIds.localpart(mxid))
+                    .map(Profile::getDisplayName)
+                    .filter(n -> !n.isBlank())
+                    .orElse(mxid);
+            return new Entry(name, now + ttlNanos);
+        } catch (Exception e) {
+            log.warn("Display name lookup failed for {}: {}", mxid, e.getMessage());
+            return new Entry(mxid, now + negativeTtlNanos);
+        }
+    }
+
+    private record Entry(String displayName, long expiresAt) {}
+}
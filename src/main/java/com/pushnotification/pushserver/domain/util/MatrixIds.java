@@ -0,0 +1,28 @@
+package com.pushnotification.pushserver.domain.util;
+
+public final class MatrixIds {
+
+    private MatrixIds() {
+    }
+
+    public static String localpart(String mxid) {
+        if (mxid == null) return null;
+        // Expect format @local:domain
+        int at = mxid.indexOf('@');
+        int colon = mxid.indexOf(':');
+        if (colon > -1) {
+            return mxid.substring(at == -1 ? 0 : at + 1, colon);
+        }
+        // If no domain part, return as-is (assume already localpart)
+        return mxid.startsWith("@") ? mxid.substring(1) : mxid;
+    }
+
+    /**
+     * Server name of an MXID ({@code @local:server} -> {@code server}), or {@code null} if it has none.
+     */
+    public static String serverName(String mxid) {
+        if (mxid == null) return null;
+        int colon = mxid.indexOf(':');
+        return colon > -1 && colon < mxid.length() - 1 ? mxid.substring(colon + 1) : null;
+    }
+}
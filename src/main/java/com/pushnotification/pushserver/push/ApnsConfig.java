@@ -7,12 +7,15 @@ import io.netty.util.concurrent.Future;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import java.io.File;
 
 @Configuration
 public class ApnsConfig {
 
+    // Lazy so the signing key is not read on the startup path; ClientPrewarmer builds it in the background
+    @Lazy
     @Bean(destroyMethod = "close")
     public ApnsClient apnsClient(
             @Value("${apns.team-id:}") String teamId,
@@ -3,73 +3,146 @@ package com.pushnotification.pushserver.push;
 import com.eatthepath.pushy.apns.ApnsClient;
 import com.eatthepath.pushy.apns.PushNotificationResponse;
 import com.eatthepath.pushy.apns.util.SimpleApnsPushNotification;
+import com.pushnotification.pushserver.diagnostics.ProviderSendEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class ApnsPushService {
 
-    private final ApnsClient apnsClient;
+    private final ObjectProvider<ApnsClient> apnsClientProvider;
     private final ObjectMapper objectMapper;
+    private final ProviderCircuitBreaker apnsCircuitBreaker;
     private static final Logger log = LoggerFactory.getLogger(ApnsPushService.class);
+    private static final Set<String> PROVIDER_TOKEN_REJECTIONS =
+            Set.of("InvalidProviderToken", "ExpiredProviderToken", "MissingProviderToken");
 
     @Value("${apns.topic:}")
     private String apnsTopic;
 
     public CompletableFuture<ProviderResult> send(String deviceToken, String title, String body, Map<String, String> data) {
-        String payload;
+        PreparedNotification prepared;
         try {
-            Map<String, Object> root = new HashMap<>();
-            Map<String, Object> aps = new HashMap<>();
-            Map<String, Object> alert = new HashMap<>();
-            alert.put("title", title);
-            alert.put("body", body);
-            aps.put("alert", alert);
-            aps.put("sound", "default");
-            root.put("aps", aps);
-            if (data != null && !data.isEmpty()) {
-                root.putAll(data);
-            }
-            payload = objectMapper.writeValueAsString(root);
+            prepared = prepare(title, body, data);
         } catch (Exception e) {
             CompletableFuture<ProviderResult> failed = new CompletableFuture<>();
             failed.complete(new ProviderResult(false, null, "Failed to build APNs payload: " + e.getMessage()));
             return failed;
         }
+        return send(deviceToken, prepared);
+    }
+
+    /**
+     * Encodes the APNs JSON payload once so it can be reused for every device in a fan-out.
+     */
+    public PreparedNotification prepare(String title, String body, Map<String, String> data) throws JsonProcessingException {
+        Map<String, Object> root = new HashMap<>();
+        Map<String, Object> aps = new HashMap<>();
+        Map<String, Object> alert = new HashMap<>();
+        alert.put("title", title);
+        alert.put("body", body);
+        aps.put("alert", alert);
+        aps.put("sound", "default");
+        root.put("aps", aps);
+        if (data != null && !data.isEmpty()) {
+            root.putAll(data);
+        }
+        return new PreparedNotification(objectMapper.writeValueAsString(root), title, data != null ? data.keySet() : Set.of());
+    }
+
+    public CompletableFuture<ProviderResult> send(String deviceToken, PreparedNotification prepared) {
+        return trySend(deviceToken, prepared).orElseGet(() ->
+                CompletableFuture.completedFuture(new ProviderResult(false, null, "APNs circuit breaker open")));
+    }
+
+    /**
+     * Sends only if the APNs circuit breaker admits it. Returns empty when the breaker refuses, so
+     * the caller can route the device to another provider instead; the admission decision is
+     * made exactly once, here.
+     */
+    public Optional<CompletableFuture<ProviderResult>> trySend(String deviceToken, PreparedNotification prepared) {
+        ProviderSendEvent event = new ProviderSendEvent("APNs", deviceToken);
+        event.begin();
+        ProviderCircuitBreaker.Permit permit = apnsCircuitBreaker.tryAcquire();
+        if (permit == null) {
+            log.warn("APNs circuit open, failing fast");
+            event.circuitOpen = true;
+            event.complete(false, "APNs circuit breaker open");
+            return Optional.empty();
+        }
         String topic = (apnsTopic != null && !apnsTopic.isBlank()) ? apnsTopic : null;
         String tokenPreview = deviceToken != null && deviceToken.length() > 8 ? deviceToken.substring(0, 8) + "…" : deviceToken;
-        log.info("APNs sending: token={}, topic={}, title='{}', dataKeys={}", tokenPreview, topic, title, (data != null ? data.keySet() : java.util.Set.of()));
-        SimpleApnsPushNotification notification = new SimpleApnsPushNotification(deviceToken, topic, payload);
+        log.info("APNs sending: token={}, topic={}, title='{}', dataKeys={}", tokenPreview, topic, prepared.title(), prepared.dataKeys());
+        SimpleApnsPushNotification notification = new SimpleApnsPushNotification(deviceToken, topic, prepared.payload());
+
+        ApnsClient apnsClient;
+        try {
+            apnsClient = apnsClientProvider.getObject();
+        } catch (Exception e) {
+            apnsCircuitBreaker.onFailure(permit, 0);
+            log.error("APNs client unavailable: {}", e.getMessage());
+            event.complete(false, e.getMessage());
+            return Optional.of(CompletableFuture.completedFuture(new ProviderResult(false, null, "APNs client unavailable: " + e.getMessage())));
+        }
 
         CompletableFuture<ProviderResult> promise = new CompletableFuture<>();
+        long start = System.nanoTime();
         apnsClient.sendNotification(notification).whenComplete((response, cause) -> {
+            long elapsed = System.nanoTime() - start;
             if (cause == null) {
+                if (isProviderFault(response)) {
+                    apnsCircuitBreaker.onFailure(permit, elapsed);
+                } else {
+                    apnsCircuitBreaker.onSuccess(permit, elapsed);
+                }
                 if (response.isAccepted()) {
                     String apnsId = response.getApnsId() != null ? response.getApnsId().toString() : null;
                     log.info("APNs accepted: apnsId={}", apnsId);
+                    event.complete(true, null);
                     promise.complete(new ProviderResult(true, apnsId, null));
                 } else {
                     String reason = response.getRejectionReason() != null ? response.getRejectionReason().orElse(null) : null;
                     log.warn("APNs rejected: reason={}", reason);
+                    event.complete(false, reason);
                     promise.complete(new ProviderResult(false, null, reason));
                 }
             } else {
+                apnsCircuitBreaker.onFailure(permit, elapsed);
                 log.error("APNs send failed: {}", cause.getMessage());
+                event.complete(false, cause.getMessage());
                 promise.complete(new ProviderResult(false, null, cause.getMessage()));
             }
         });
-        return promise;
+        return Optional.of(promise);
     }
 
+    /**
+     * Rejections for a bad device token or payload are per-device. 5xx responses and provider-token
+     * (JWT / signing key) rejections affect every send, so they count against APNs health.
+     */
+    private boolean isProviderFault(PushNotificationResponse<?> response) {
+        if (response.getStatusCode() >= 500) {
+            return true;
+        }
+        String reason = response.getRejectionReason() != null ? response.getRejectionReason().orElse(null) : null;
+        return reason != null && PROVIDER_TOKEN_REJECTIONS.contains(reason);
+    }
+
+    public record PreparedNotification(String payload, String title, Set<String> dataKeys) {}
+
     public record ProviderResult(boolean success, String messageId, String error) {}
 }
 
@@ -0,0 +1,45 @@
+package com.pushnotification.pushserver.push;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CircuitBreakerConfig {
+
+    @Value("${push.breaker.window-size:50}")
+    private int windowSize;
+
+    @Value("${push.breaker.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${push.breaker.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${push.breaker.slow-call-rate-threshold:0.8}")
+    private double slowCallRateThreshold;
+
+    @Value("${push.breaker.slow-call-duration-ms:2000}")
+    private long slowCallDurationMs;
+
+    @Value("${push.breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${push.breaker.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    @Bean
+    public ProviderCircuitBreaker apnsCircuitBreaker() {
+        return create("APNs");
+    }
+
+    @Bean
+    public ProviderCircuitBreaker fcmCircuitBreaker() {
+        return create("FCM");
+    }
+
+    private ProviderCircuitBreaker create(String name) {
+        return new ProviderCircuitBreaker(name, windowSize, minimumCalls, failureRateThreshold,
+                slowCallRateThreshold, slowCallDurationMs, openDurationMs, halfOpenProbes);
+    }
+}
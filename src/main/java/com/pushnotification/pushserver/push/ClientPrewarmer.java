@@ -0,0 +1,71 @@
+package com.pushnotification.pushserver.push;
+
+import com.eatthepath.pushy.apns.ApnsClient;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.ImplFirebaseTrampolines;
+import com.google.firebase.messaging.FirebaseMessaging;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Warms the lazily-created provider clients and the DB pool on a background thread once the
+ * application is ready: loads the APNs signing key, initializes Firebase and fetches its OAuth
+ * access token, and opens the first pooled DB connection. Pushy has no connect-ahead API, so the
+ * APNs HTTP/2 connection (TLS handshake) is still opened by the first send.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClientPrewarmer {
+
+    private final ObjectProvider<ApnsClient> apnsClientProvider;
+    private final ObjectProvider<FirebaseApp> firebaseAppProvider;
+    private final ObjectProvider<FirebaseMessaging> firebaseMessagingProvider;
+    private final DataSource dataSource;
+    private static final Logger log = LoggerFactory.getLogger(ClientPrewarmer.class);
+
+    @Value("${push.prewarm.enabled:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::warm, "client-prewarm");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warm() {
+        long start = System.nanoTime();
+        try {
+            apnsClientProvider.getObject();
+            log.info("Prewarm: APNs client ready");
+        } catch (Exception e) {
+            log.warn("Prewarm: APNs client failed: {}", e.getMessage());
+        }
+        try {
+            firebaseMessagingProvider.getObject();
+            // FirebaseOptions.getCredentials() is package-private; the trampoline is the SDK's accessor for it
+            ImplFirebaseTrampolines.getCredentials(firebaseAppProvider.getObject()).refreshIfExpired();
+            log.info("Prewarm: FCM client and access token ready");
+        } catch (Exception e) {
+            log.warn("Prewarm: FCM client failed: {}", e.getMessage());
+        }
+        try (Connection ignored = dataSource.getConnection()) {
+            log.info("Prewarm: DB pool ready");
+        } catch (Exception e) {
+            log.warn("Prewarm: DB connection failed: {}", e.getMessage());
+        }
+        log.info("Prewarm finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -5,8 +5,12 @@ import com.google.firebase.messaging.ApnsConfig;
 import com.google.firebase.messaging.Aps;
 import com.google.firebase.messaging.ApsAlert;
 import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.pushnotification.pushserver.diagnostics.ProviderSendEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -18,37 +22,88 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 public class FcmPushService {
 
-    private final FirebaseMessaging firebaseMessaging;
+    private final ObjectProvider<FirebaseMessaging> firebaseMessagingProvider;
+    private final ProviderCircuitBreaker fcmCircuitBreaker;
     private static final Logger log = LoggerFactory.getLogger(FcmPushService.class);
 
     public CompletableFuture<ProviderResult> send(String deviceToken, String title, String body, Map<String, String> data) {
-        Message.Builder builder = Message.builder()
-                .setToken(deviceToken)
-                .putAllData(data != null ? data : Map.of());
+        return send(deviceToken, prepare(title, body, data));
+    }
 
+    /**
+     * Builds the token-independent parts of the message once so they can be reused for every
+     * device in a fan-out.
+     */
+    public PreparedNotification prepare(String title, String body, Map<String, String> data) {
         AndroidConfig androidConfig = AndroidConfig.builder().build();
-        builder.setAndroidConfig(androidConfig);
-
         ApnsConfig apnsConfig = ApnsConfig.builder()
                 .setAps(Aps.builder().setAlert(ApsAlert.builder().setTitle(title).setBody(body).build()).build())
                 .build();
-        builder.setApnsConfig(apnsConfig);
+        return new PreparedNotification(data != null ? data : Map.of(), androidConfig, apnsConfig, title);
+    }
 
+    public CompletableFuture<ProviderResult> send(String deviceToken, PreparedNotification prepared) {
+        ProviderSendEvent event = new ProviderSendEvent("FCM", deviceToken);
+        event.begin();
+        // Built before admission: a missing or malformed token is a per-device problem, not an FCM fault
+        Message message;
+        try {
+            message = Message.builder()
+                    .setToken(deviceToken)
+                    .putAllData(prepared.data())
+                    .setAndroidConfig(prepared.androidConfig())
+                    .setApnsConfig(prepared.apnsConfig())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            log.error("FCM message invalid: {}", e.getMessage());
+            event.complete(false, e.getMessage());
+            return CompletableFuture.completedFuture(new ProviderResult(false, null, "Invalid FCM message: " + e.getMessage()));
+        }
+        ProviderCircuitBreaker.Permit permit = fcmCircuitBreaker.tryAcquire();
+        if (permit == null) {
+            log.warn("FCM circuit open, failing fast");
+            event.circuitOpen = true;
+            event.complete(false, "FCM circuit breaker open");
+            return CompletableFuture.completedFuture(new ProviderResult(false, null, "FCM circuit breaker open"));
+        }
         String tokenPreview = deviceToken != null && deviceToken.length() > 8 ? deviceToken.substring(0, 8) + "…" : deviceToken;
-        log.info("FCM sending: token={}, title='{}', dataKeys={}", tokenPreview, title, (data != null ? data.keySet() : java.util.Set.of()));
+        log.info("FCM sending: token={}, title='{}', dataKeys={}", tokenPreview, prepared.title(), prepared.data().keySet());
 
         return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
             try {
-                String id = firebaseMessaging.send(builder.build());
+                String id = firebaseMessagingProvider.getObject().send(message);
+                fcmCircuitBreaker.onSuccess(permit, System.nanoTime() - start);
                 log.info("FCM sent: messageId={}", id);
+                event.complete(true, null);
                 return new ProviderResult(true, id, null);
             } catch (Exception ex) {
+                if (isProviderFault(ex)) {
+                    fcmCircuitBreaker.onFailure(permit, System.nanoTime() - start);
+                } else {
+                    fcmCircuitBreaker.onSuccess(permit, System.nanoTime() - start);
+                }
                 log.error("FCM send failed: {}", ex.getMessage());
+                event.complete(false, ex.getMessage());
                 return new ProviderResult(false, null, ex.getMessage());
             }
         });
     }
 
+    private boolean isProviderFault(Exception ex) {
+        // Unregistered or invalid tokens are per-device problems and must not trip the breaker
+        if (ex instanceof FirebaseMessagingException fme) {
+            MessagingErrorCode code = fme.getMessagingErrorCode();
+            return code == null
+                    || code == MessagingErrorCode.UNAVAILABLE
+                    || code == MessagingErrorCode.INTERNAL
+                    || code == MessagingErrorCode.QUOTA_EXCEEDED;
+        }
+        return true;
+    }
+
+    public record PreparedNotification(Map<String, String> data, AndroidConfig androidConfig, ApnsConfig apnsConfig, String title) {}
+
     public record ProviderResult(boolean success, String messageId, String error) {}
 }
 
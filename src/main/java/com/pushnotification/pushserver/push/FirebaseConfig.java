@@ -7,6 +7,7 @@ import com.google.firebase.messaging.FirebaseMessaging;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -14,6 +15,8 @@ import java.io.IOException;
 @Configuration
 public class FirebaseConfig {
 
+    // Lazy so credentials are not loaded on the startup path; ClientPrewarmer initializes them in the background
+    @Lazy
     @Bean
     public FirebaseApp firebaseApp(@Value("${fcm.service-account-path:}") String serviceAccountPath) throws IOException {
         if (serviceAccountPath == null || serviceAccountPath.isBlank()) {
@@ -27,6 +30,7 @@ public class FirebaseConfig {
         }
     }
 
+    @Lazy
     @Bean
     public FirebaseMessaging firebaseMessaging(FirebaseApp app) {
         return FirebaseMessaging.getInstance(app);
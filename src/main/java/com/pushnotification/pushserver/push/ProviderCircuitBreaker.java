@@ -0,0 +1,191 @@
+package com.pushnotification.pushserver.push;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Health-tracking circuit breaker for a single push provider.
+ * <p>
+ * Outcomes of the last {@code windowSize} sends are kept in a ring buffer. Once at least
+ * {@code minimumCalls} have been recorded, the breaker opens when either the failure rate or the
+ * slow-call rate reaches its threshold. While open, sends are refused until {@code openDurationMs}
+ * has elapsed; after that a limited number of probe sends are let through (half-open) and the
+ * breaker closes again only if all of them succeed in time. If the probes have not all reported
+ * back within another {@code openDurationMs} (a hung send or lost callback), the breaker re-opens
+ * rather than waiting on them forever.
+ * <p>
+ * Every admitted send gets a {@link Permit} that must be handed back with its outcome. Permits
+ * are tied to the state period they were issued in, so late results from before a transition
+ * (e.g. a slow send issued while CLOSED completing during HALF_OPEN) are ignored.
+ */
+public class ProviderCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Admission ticket returned by {@link #tryAcquire()}.
+     */
+    public static final class Permit {
+        private final long epoch;
+
+        private Permit(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderCircuitBreaker.class);
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long epoch;
+    private long openedAt;
+    private long halfOpenedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    public ProviderCircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                                  double slowCallRateThreshold, long slowCallDurationMs, long openDurationMs,
+                                  int halfOpenProbes) {
+        if (windowSize < 1 || minimumCalls < 1 || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenProbes must be positive");
+        }
+        this.name = name;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDurationMs * 1_000_000L;
+        this.openNanos = openDurationMs * 1_000_000L;
+        this.halfOpenProbes = halfOpenProbes;
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+    }
+
+    /**
+     * Reserves a send. Returns {@code null} when the breaker is open, or half-open with all probes
+     * already in flight; the caller must then fail fast instead of contacting the provider.
+     */
+    public synchronized Permit tryAcquire() {
+        long now = System.nanoTime();
+        if (state == State.OPEN && now - openedAt >= openNanos) {
+            transitionTo(State.HALF_OPEN, now);
+        } else if (state == State.HALF_OPEN && probesIssued >= halfOpenProbes && now - halfOpenedAt >= openNanos) {
+            log.warn("{} circuit breaker probes did not complete within {} ms, re-opening", name, openNanos / 1_000_000);
+            transitionTo(State.OPEN, now);
+        }
+        switch (state) {
+            case CLOSED:
+                return new Permit(epoch);
+            case HALF_OPEN:
+                if (probesIssued < halfOpenProbes) {
+                    probesIssued++;
+                    return new Permit(epoch);
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Whether a send would currently be let through, without reserving it.
+     */
+    public synchronized boolean isCallPermitted() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                return probesIssued < halfOpenProbes;
+            default:
+                return System.nanoTime() - openedAt >= openNanos;
+        }
+    }
+
+    public void onSuccess(Permit permit, long elapsedNanos) {
+        record(permit, false, elapsedNanos);
+    }
+
+    public void onFailure(Permit permit, long elapsedNanos) {
+        record(permit, true, elapsedNanos);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private synchronized void record(Permit permit, boolean failure, long elapsedNanos) {
+        if (permit.epoch != epoch) {
+            return; // issued before the last transition; says nothing about the current state
+        }
+        boolean tooSlow = elapsedNanos >= slowCallNanos;
+        long now = System.nanoTime();
+        if (state == State.HALF_OPEN) {
+            if (failure || tooSlow) {
+                transitionTo(State.OPEN, now);
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                transitionTo(State.CLOSED, now);
+            }
+            return;
+        }
+        if (recorded == failed.length) {
+            if (failed[next]) failures--;
+            if (slow[next]) slowCalls--;
+        } else {
+            recorded++;
+        }
+        failed[next] = failure;
+        slow[next] = tooSlow;
+        if (failure) failures++;
+        if (tooSlow) slowCalls++;
+        next = (next + 1) % failed.length;
+
+        if (recorded >= minimumCalls) {
+            double failureRate = (double) failures / recorded;
+            double slowRate = (double) slowCalls / recorded;
+            if (failureRate >= failureRateThreshold || slowRate >= slowCallRateThreshold) {
+                log.warn("{} circuit breaker tripped: failureRate={}, slowRate={}, window={}", name,
+                        String.format("%.2f", failureRate), String.format("%.2f", slowRate), recorded);
+                transitionTo(State.OPEN, now);
+            }
+        }
+    }
+
+    private void transitionTo(State target, long now) {
+        log.info("{} circuit breaker {} -> {}", name, state, target);
+        state = target;
+        epoch++;
+        probesIssued = 0;
+        probesSucceeded = 0;
+        if (target == State.OPEN) {
+            openedAt = now;
+        } else if (target == State.HALF_OPEN) {
+            halfOpenedAt = now;
+        } else if (target == State.CLOSED) {
+            Arrays.fill(failed, false);
+            Arrays.fill(slow, false);
+            next = 0;
+            recorded = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pushnotification.pushserver.diagnostics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DispatchRecorderTest {
+
+	private DispatchRecorder recorder;
+
+	@BeforeEach
+	void setUp() {
+		recorder = new DispatchRecorder(3);
+	}
+
+	@Test
+	void emptyRecorderReturnsNothing() {
+		assertTrue(recorder.recent(10).isEmpty());
+	}
+
+	@Test
+	void returnsNewestFirst() {
+		add("r0");
+		add("r1");
+		assertEquals(List.of("r1", "r0"), roomIds(recorder.recent(10)));
+	}
+
+	@Test
+	void keepsOnlyLastCapacityRecordsAfterWraparound() {
+		for (int i = 0; i < 7; i++) {
+			add("r" + i);
+		}
+		assertEquals(List.of("r6", "r5", "r4"), roomIds(recorder.recent(10)));
+	}
+
+	@Test
+	void capsLimitAtCapacityAndHonoursSmallerLimit() {
+		for (int i = 0; i < 5; i++) {
+			add("r" + i);
+		}
+		assertEquals(3, recorder.recent(Integer.MAX_VALUE).size());
+		assertEquals(List.of("r4", "r3"), roomIds(recorder.recent(2)));
+	}
+
+	private void add(String roomId) {
+		recorder.add(new DispatchRecord(Instant.now(), roomId, "audio", "@alice:example.com", Map.of(), 0, List.of()));
+	}
+
+	private static List<String> roomIds(List<DispatchRecord> records) {
+		return records.stream().map(DispatchRecord::roomId).toList();
+	}
+}
@@ -0,0 +1,49 @@
+package com.pushnotification.pushserver.domain.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CallTemplateServiceTest {
+
+	private CallTemplateService service;
+
+	@BeforeEach
+	void setUp() {
+		// Same settings as spring.messages.* in application.properties
+		ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+		messageSource.setBasename("i18n/call");
+		messageSource.setDefaultEncoding("UTF-8");
+		messageSource.setFallbackToSystemLocale(false);
+		service = new CallTemplateService(messageSource);
+	}
+
+	@Test
+	void languageOfUsesPrimarySubtag() {
+		assertEquals("de", CallTemplateService.languageOf("de-DE"));
+		assertEquals("pt", CallTemplateService.languageOf("pt_BR"));
+		assertEquals("", CallTemplateService.languageOf("  "));
+		assertEquals("", CallTemplateService.languageOf(null));
+	}
+
+	@Test
+	void rendersKnownLanguage() {
+		CallTemplateService.CallText text = service.render("de", "video", "Alice");
+		assertEquals("Eingehender Videoanruf", text.title());
+		assertEquals("Alice ruft an", text.body());
+	}
+
+	@Test
+	void unknownLanguageFallsBackToBaseBundle() {
+		CallTemplateService.CallText text = service.render("xx", "audio", "Alice");
+		assertEquals("Incoming audio call", text.title());
+		assertEquals("Alice is calling", text.body());
+	}
+
+	@Test
+	void unknownCallTypeUsesOtherTitle() {
+		assertEquals("Incoming screenshare call", service.render("", "screenshare", "Alice").title());
+	}
+}
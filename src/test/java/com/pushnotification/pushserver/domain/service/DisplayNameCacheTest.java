@@ -0,0 +1,60 @@
+package com.pushnotification.pushserver.domain.service;
+
+import com.pushnotification.pushserver.domain.model.Profile;
+import com.pushnotification.pushserver.domain.repository.ProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DisplayNameCacheTest {
+
+	private static final long NEGATIVE_TTL_MS = 50;
+
+	private ProfileRepository profileRepository;
+	private DisplayNameCache cache;
+
+	@BeforeEach
+	void setUp() {
+		profileRepository = mock(ProfileRepository.class);
+		cache = new DisplayNameCache(profileRepository, 100, 600_000, NEGATIVE_TTL_MS, "example.com");
+	}
+
+	@Test
+	void resolvesLocalUserDisplayName() {
+		when(profileRepository.findById("alice"))
+				.thenReturn(Optional.of(Profile.builder().userId("alice").displayName("Alice").build()));
+		assertEquals("Alice", cache.resolve("@alice:example.com"));
+		assertEquals("Alice", cache.resolve("@alice:example.com"));
+		verify(profileRepository, times(1)).findById("alice");
+	}
+
+	@Test
+	void remoteSenderIsNotLookedUp() {
+		assertEquals("@alice:other.org", cache.resolve("@alice:other.org"));
+		verifyNoInteractions(profileRepository);
+	}
+
+	@Test
+	void failedLookupIsCachedForNegativeTtl() throws InterruptedException {
+		when(profileRepository.findById("alice")).thenThrow(new RuntimeException("db down"));
+
+		assertEquals("@alice:example.com", cache.resolve("@alice:example.com"));
+		assertEquals("@alice:example.com", cache.resolve("@alice:example.com"));
+		verify(profileRepository, times(1)).findById("alice");
+
+		Thread.sleep(NEGATIVE_TTL_MS + 30);
+		// The expired entry is served once and dropped; the next call queries again
+		assertEquals("@alice:example.com", cache.resolve("@alice:example.com"));
+		verify(profileRepository, times(1)).findById("alice");
+		cache.resolve("@alice:example.com");
+		verify(profileRepository, times(2)).findById("alice");
+	}
+}
@@ -0,0 +1,163 @@
+package com.pushnotification.pushserver.push;
+
+import com.pushnotification.pushserver.push.ProviderCircuitBreaker.Permit;
+import com.pushnotification.pushserver.push.ProviderCircuitBreaker.State;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderCircuitBreakerTest {
+
+	private static final long OPEN_MS = 50;
+	private static final long SLOW_NANOS = 200_000_000L; // above the 100 ms slow-call duration
+
+	private ProviderCircuitBreaker breaker;
+
+	@BeforeEach
+	void setUp() {
+		// window 10, trip at >= 4 calls with 50% failures or 50% slow calls, 2 half-open probes
+		breaker = new ProviderCircuitBreaker("test", 10, 4, 0.5, 0.5, 100, OPEN_MS, 2);
+	}
+
+	@Test
+	void tripsAtFailureThresholdOnceMinimumCallsReached() {
+		succeed();
+		fail();
+		fail();
+		assertEquals(State.CLOSED, breaker.getState(), "below minimumCalls");
+		succeed();
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	@Test
+	void tripsOnSlowCallRate() {
+		succeed();
+		succeed();
+		breaker.onSuccess(breaker.tryAcquire(), SLOW_NANOS);
+		assertEquals(State.CLOSED, breaker.getState());
+		breaker.onSuccess(breaker.tryAcquire(), SLOW_NANOS);
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	@Test
+	void refusesSendsWhileOpen() {
+		trip();
+		assertNull(breaker.tryAcquire());
+		assertFalse(breaker.isCallPermitted());
+	}
+
+	@Test
+	void movesToHalfOpenAfterOpenDuration() throws InterruptedException {
+		trip();
+		waitOpenDuration();
+		assertTrue(breaker.isCallPermitted());
+		assertNotNull(breaker.tryAcquire());
+		assertEquals(State.HALF_OPEN, breaker.getState());
+	}
+
+	@Test
+	void limitsProbesInHalfOpen() throws InterruptedException {
+		trip();
+		waitOpenDuration();
+		assertNotNull(breaker.tryAcquire());
+		assertNotNull(breaker.tryAcquire());
+		assertNull(breaker.tryAcquire());
+		assertFalse(breaker.isCallPermitted());
+	}
+
+	@Test
+	void reopensWhenProbesDoNotReportBackInTime() throws InterruptedException {
+		trip();
+		waitOpenDuration();
+		Permit hung1 = breaker.tryAcquire();
+		Permit hung2 = breaker.tryAcquire();
+		assertNotNull(hung1);
+		assertNotNull(hung2);
+		assertNull(breaker.tryAcquire());
+
+		waitOpenDuration();
+		assertNull(breaker.tryAcquire(), "probes timed out, breaker re-opens");
+		assertEquals(State.OPEN, breaker.getState());
+
+		waitOpenDuration();
+		assertNotNull(breaker.tryAcquire(), "new probes are issued after the next open period");
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		breaker.onFailure(hung1, 0);
+		assertEquals(State.HALF_OPEN, breaker.getState(), "the hung probes' late results are stale");
+	}
+
+	@Test
+	void failedProbeReopens() throws InterruptedException {
+		trip();
+		waitOpenDuration();
+		breaker.onFailure(breaker.tryAcquire(), 0);
+		assertEquals(State.OPEN, breaker.getState());
+		assertNull(breaker.tryAcquire());
+	}
+
+	@Test
+	void slowProbeReopens() throws InterruptedException {
+		trip();
+		waitOpenDuration();
+		breaker.onSuccess(breaker.tryAcquire(), SLOW_NANOS);
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	@Test
+	void allProbesSucceedingClosesAndResetsWindow() throws InterruptedException {
+		trip();
+		waitOpenDuration();
+		Permit first = breaker.tryAcquire();
+		Permit second = breaker.tryAcquire();
+		breaker.onSuccess(first, 0);
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		breaker.onSuccess(second, 0);
+		assertEquals(State.CLOSED, breaker.getState());
+
+		// The pre-trip failures are gone: three failures stay below minimumCalls again
+		fail();
+		fail();
+		fail();
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	void ignoresLateResultsFromBeforeTransition() throws InterruptedException {
+		Permit stale = breaker.tryAcquire();
+		trip();
+		waitOpenDuration();
+		Permit probe = breaker.tryAcquire();
+
+		breaker.onFailure(stale, 0);
+		assertEquals(State.HALF_OPEN, breaker.getState(), "stale failure must not re-open");
+		breaker.onSuccess(stale, 0);
+		breaker.onSuccess(probe, 0);
+		assertEquals(State.HALF_OPEN, breaker.getState(), "stale success must not count as a probe");
+		breaker.onSuccess(breaker.tryAcquire(), 0);
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	private void succeed() {
+		breaker.onSuccess(breaker.tryAcquire(), 0);
+	}
+
+	private void fail() {
+		breaker.onFailure(breaker.tryAcquire(), 0);
+	}
+
+	private void trip() {
+		for (int i = 0; i < 4; i++) {
+			fail();
+		}
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	private void waitOpenDuration() throws InterruptedException {
+		Thread.sleep(OPEN_MS + 30);
+	}
+}